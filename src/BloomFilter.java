@@ -0,0 +1,154 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Simple Bloom filter for visitor ID membership tests
+ * Answers "definitely not present" or "possibly present" without scanning ride history
+ * Uses double hashing (h1 + i * h2) over an atomic bit array, so add() and mightContain()
+ * may run concurrently (e.g., boarding while gates check history)
+ */
+public class BloomFilter {
+    private final AtomicLongArray bits;   // Bit array (64 bits per long)
+    private final int numBits;            // Total number of bits (m)
+    private final int numHashes;          // Number of hash functions (k)
+    private final long capacity;          // Insertions the filter was sized for (n)
+    private final AtomicInteger bitsSet;  // Number of bits currently set (for false-positive estimate)
+    private final AtomicLong insertions;  // Number of add() calls
+    private final AtomicLong distinctInsertions; // add() calls that set at least one new bit
+
+    /**
+     * Parameterized constructor: sizes the filter for an expected volume
+     * @param expectedInsertions Expected number of distinct IDs (minimum: 1)
+     * @param falsePositiveRate Target false-positive rate (e.g., 0.01 for 1%)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        this.capacity = n;
+        double p = falsePositiveRate > 0 && falsePositiveRate < 1 ? falsePositiveRate : 0.01;
+        // Optimal sizing: m = -n * ln(p) / (ln 2)^2, k = (m / n) * ln 2
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, Math.min(m, Integer.MAX_VALUE - 63L));
+        this.numBits = (int) m;
+        this.numHashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+        this.bitsSet = new AtomicInteger();
+        this.insertions = new AtomicLong();
+        this.distinctInsertions = new AtomicLong();
+    }
+
+    /**
+     * Adds a visitor ID to the filter
+     * @param id Visitor ID (null is ignored)
+     * @return true if a new bit was set (the ID was definitely not present before), false otherwise
+     */
+    public boolean add(String id) {
+        if (id == null) {
+            return false;
+        }
+        boolean changed = false;
+        int h1 = id.hashCode();
+        int h2 = secondaryHash(h1);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            long mask = 1L << bit;
+            long previous = bits.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+            if ((previous & mask) == 0) {
+                bitsSet.incrementAndGet();
+                changed = true;
+            }
+        }
+        insertions.incrementAndGet();
+        if (changed) {
+            distinctInsertions.incrementAndGet();
+        }
+        return changed;
+    }
+
+    /**
+     * Checks whether a visitor ID may be in the filter
+     * @param id Visitor ID
+     * @return false if the ID was definitely never added, true if it possibly was
+     */
+    public boolean mightContain(String id) {
+        if (id == null) {
+            return false;
+        }
+        int h1 = id.hashCode();
+        int h2 = secondaryHash(h1);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = bitIndex(h1 + i * h2);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the current false-positive rate from the fraction of bits set: (bitsSet / m)^k
+     * @return Estimated probability that mightContain() returns true for an absent ID
+     */
+    public double estimatedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.get() / numBits, numHashes);
+    }
+
+    /**
+     * Returns the memory used by the bit array
+     * @return Size in bytes
+     */
+    public long getSizeBytes() {
+        return bits.length() * 8L;
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    /**
+     * Returns the number of distinct IDs the filter was sized for; past this point the
+     * false-positive rate climbs above the target
+     * @return Expected insertions (minimum: 1)
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getInsertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Returns the approximate number of distinct IDs added
+     * Repeat IDs set no new bits and are not counted; an occasional new ID whose bits were all
+     * already set is missed too, so this slightly undercounts
+     * @return Distinct insertions (compare against getCapacity())
+     */
+    public long getDistinctInsertions() {
+        return distinctInsertions.get();
+    }
+
+    // ------------------------------ Helper Methods ------------------------------
+    /**
+     * Derives an independent second hash (murmur3 finalizer), forced odd so probes cycle
+     */
+    private static int secondaryHash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+
+    /**
+     * Maps a combined hash to a bit position in [0, numBits)
+     */
+    private int bitIndex(int combinedHash) {
+        return (int) ((combinedHash & 0xffffffffL) % numBits);
+    }
+}
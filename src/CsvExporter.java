@@ -0,0 +1,301 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * High-throughput CSV export for ride history
+ * Encodes each Visitor field straight into a reusable direct ByteBuffer as UTF-8
+ * (ints as digits, no intermediate Strings) and writes it through a FileChannel in large chunks.
+ * Output matches Visitor.toString() lines: ID,Name,Age,TicketType,VisitDate, each ended by the
+ * platform line separator (as BufferedWriter.newLine() writes them)
+ */
+public class CsvExporter {
+    public static final int BUFFER_SIZE = 1 << 20;   // Direct buffer size per writer (1 MB)
+    private static final int MAX_UTF8_BYTES = 4;     // Worst-case bytes for one encoded code point
+    private static final byte[] NULL_BYTES = {'n', 'u', 'l', 'l'};  // Same as String.valueOf(null)
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    // Utility class - no instances
+    private CsvExporter() {}
+
+    // ------------------------------ Export Methods ------------------------------
+    /**
+     * Exports rows sequentially with a single direct buffer
+     * @param rows Visitor records in output order
+     * @param target Output file (created or truncated)
+     * @return Number of bytes written
+     * @throws IOException if the file cannot be written
+     */
+    public static long export(Iterable<Visitor> rows, Path target) throws IOException {
+        try (FileChannel channel = openForWrite(target)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long bytes = writeRows(rows.iterator(), channel, buffer);
+            flush(buffer, channel);
+            return bytes;
+        }
+    }
+
+    /**
+     * Exports history segments in parallel: each thread encodes a contiguous run of segments into
+     * its own part file, then the parts are concatenated in order with FileChannel transfers.
+     * Each thread loads one segment at a time, so spilled segments are never all on-heap at once
+     * @param segments History segments in output order
+     * @param target Output file (created or truncated)
+     * @param threads Number of writer threads (1 writes every segment on the calling thread)
+     * @return Number of bytes written
+     * @throws IOException if any part cannot be written (or a spilled segment cannot be read)
+     */
+    public static long exportParallel(List<HistorySegment> segments, Path target, int threads) throws IOException {
+        List<List<HistorySegment>> runs = splitBySize(segments, Math.max(1, threads));
+        if (runs.size() <= 1) {
+            return exportSegments(segments, target);
+        }
+
+        List<Path> partFiles = createPartFiles(target, runs.size());
+        ExecutorService pool = Executors.newFixedThreadPool(runs.size());
+        long bytes = 0;
+        try {
+            List<Future<Long>> futures = new ArrayList<>(runs.size());
+            for (int p = 0; p < runs.size(); p++) {
+                final List<HistorySegment> run = runs.get(p);
+                final Path partFile = partFiles.get(p);
+                futures.add(pool.submit(() -> exportSegments(run, partFile)));
+            }
+            for (Future<Long> future : futures) {
+                bytes += future.get();
+            }
+            concatenate(partFiles, target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Export writer failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+            for (Path partFile : partFiles) {
+                Files.deleteIfExists(partFile);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Creates uniquely named, empty part files next to the target
+     * Unique names keep concurrent exports to the same path (or an unrelated file that happens to
+     * share a part's name) from overwriting each other; the caller deletes the parts when done
+     * @param target Output file the parts will be concatenated into
+     * @param count Number of part files
+     * @return Part files in output order
+     * @throws IOException if a part cannot be created (parts created so far are deleted)
+     */
+    public static List<Path> createPartFiles(Path target, int count) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        String prefix = target.getFileName() + ".";
+        List<Path> parts = new ArrayList<>(count);
+        try {
+            for (int p = 0; p < count; p++) {
+                parts.add(Files.createTempFile(directory, prefix, ".part"));
+            }
+        } catch (IOException e) {
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+            throw e;
+        }
+        return parts;
+    }
+
+    /**
+     * Concatenates part files into the target in order, deleting each part once it is copied
+     * @param parts Part files in output order
+     * @param target Output file (created or truncated)
+     * @throws IOException if a part cannot be read or the target cannot be written
+     */
+    public static void concatenate(List<Path> parts, Path target) throws IOException {
+        try (FileChannel out = openForWrite(target)) {
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long position = 0;
+                    long size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+                Files.delete(part);
+            }
+        }
+    }
+
+    // ------------------------------ Segment Helpers ------------------------------
+    /**
+     * Writes segments to one file, loading each segment's records only while it is encoded
+     */
+    private static long exportSegments(List<HistorySegment> segments, Path target) throws IOException {
+        try (FileChannel channel = openForWrite(target)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long bytes = 0;
+            for (HistorySegment segment : segments) {
+                bytes += writeRows(segment.getRecords().iterator(), channel, buffer);
+            }
+            flush(buffer, channel);
+            return bytes;
+        }
+    }
+
+    /**
+     * Splits segments into at most the given number of contiguous runs with similar record counts
+     */
+    private static List<List<HistorySegment>> splitBySize(List<HistorySegment> segments, int runs) {
+        long total = 0;
+        for (HistorySegment segment : segments) {
+            total += segment.size();
+        }
+        List<List<HistorySegment>> result = new ArrayList<>();
+        int from = 0;
+        long covered = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            covered += segments.get(i).size();
+            // Close a run once it reaches its share of the records (the last run takes the rest)
+            if (result.size() < runs - 1 && covered * runs >= total * (result.size() + 1)) {
+                result.add(segments.subList(from, i + 1));
+                from = i + 1;
+            }
+        }
+        if (from < segments.size()) {
+            result.add(segments.subList(from, segments.size()));
+        }
+        return result;
+    }
+
+    // ------------------------------ Encoding ------------------------------
+    /**
+     * Encodes rows into the buffer, flushing it to the channel whenever it fills
+     * (the caller flushes whatever remains once all rows are written)
+     */
+    private static long writeRows(Iterator<Visitor> rows, FileChannel channel, ByteBuffer buffer) throws IOException {
+        long bytes = 0;
+        while (rows.hasNext()) {
+            Visitor v = rows.next();
+            bytes += putString(v.getId(), buffer, channel);
+            bytes += putByte((byte) ',', buffer, channel);
+            bytes += putString(v.getName(), buffer, channel);
+            bytes += putByte((byte) ',', buffer, channel);
+            bytes += putInt(v.getAge(), buffer, channel);
+            bytes += putByte((byte) ',', buffer, channel);
+            bytes += putString(v.getTicketType(), buffer, channel);
+            bytes += putByte((byte) ',', buffer, channel);
+            bytes += putString(v.getVisitDate(), buffer, channel);
+            bytes += putBytes(LINE_SEPARATOR, buffer, channel);
+        }
+        return bytes;
+    }
+
+    /**
+     * Encodes a String as UTF-8 (ASCII fast path, surrogate pairs combined into 4-byte sequences)
+     */
+    private static int putString(String value, ByteBuffer buffer, FileChannel channel) throws IOException {
+        if (value == null) {
+            ensureCapacity(NULL_BYTES.length, buffer, channel);
+            buffer.put(NULL_BYTES);
+            return NULL_BYTES.length;
+        }
+        int written = 0;
+        int length = value.length();
+        // Reserve room for the whole field up front; only oversized fields check per character
+        boolean reserved = (long) length * MAX_UTF8_BYTES <= buffer.capacity();
+        if (reserved) {
+            ensureCapacity(length * MAX_UTF8_BYTES, buffer, channel);
+        }
+        for (int i = 0; i < length; i++) {
+            if (!reserved) {
+                ensureCapacity(MAX_UTF8_BYTES, buffer, channel);
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+                written += 1;
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+                written += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+                written += 4;
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate: replace with '?' like the JDK encoder
+                buffer.put((byte) '?');
+                written += 1;
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+                written += 3;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Encodes an int as ASCII decimal digits without creating a String
+     */
+    private static int putInt(int value, ByteBuffer buffer, FileChannel channel) throws IOException {
+        ensureCapacity(11, buffer, channel);  // "-2147483648" is 11 bytes
+        long n = value;
+        int written = 0;
+        if (n < 0) {
+            buffer.put((byte) '-');
+            n = -n;
+            written++;
+        }
+        long divisor = 1;
+        while (divisor * 10 <= n) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer.put((byte) ('0' + (n / divisor) % 10));
+            divisor /= 10;
+            written++;
+        }
+        return written;
+    }
+
+    private static int putByte(byte b, ByteBuffer buffer, FileChannel channel) throws IOException {
+        ensureCapacity(1, buffer, channel);
+        buffer.put(b);
+        return 1;
+    }
+
+    private static int putBytes(byte[] bytes, ByteBuffer buffer, FileChannel channel) throws IOException {
+        ensureCapacity(bytes.length, buffer, channel);
+        buffer.put(bytes);
+        return bytes.length;
+    }
+
+    // ------------------------------ Channel Helpers ------------------------------
+    private static void ensureCapacity(int bytes, ByteBuffer buffer, FileChannel channel) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(buffer, channel);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static FileChannel openForWrite(Path target) throws IOException {
+        return FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
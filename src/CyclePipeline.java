@@ -0,0 +1,156 @@
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background stage for pipelined ride cycles
+ * The cycle thread hands each boarded batch to this stage through a bounded ring buffer,
+ * and a worker thread records history, logging and statistics off the critical path
+ */
+public class CyclePipeline {
+    public static final int DEFAULT_CAPACITY = 16;  // Default ring buffer size (cycles in flight)
+    private static final long HANDOFF_WAIT_MS = 100; // How often a blocked hand-off re-checks the worker
+
+    // Marker record telling the worker thread to finish
+    private static final CycleRecord SHUTDOWN = new CycleRecord(-1, new ArrayList<>(), 0);
+
+    private final Ride ride;                             // Ride whose history is being recorded
+    private final BlockingQueue<CycleRecord> ringBuffer; // Bounded hand-off between cycle and worker
+    private Thread worker;                               // Background recording thread
+
+    /**
+     * Completed cycle waiting to be recorded by the background stage
+     */
+    public static class CycleRecord {
+        private final int cycleNumber;       // Cycle number assigned by the cycle thread
+        private final List<Visitor> riders;  // Riders boarded in this cycle
+        private final int maxRider;          // Ride capacity for this cycle
+
+        public CycleRecord(int cycleNumber, List<Visitor> riders, int maxRider) {
+            this.cycleNumber = cycleNumber;
+            this.riders = riders;
+            this.maxRider = maxRider;
+        }
+
+        public int getCycleNumber() {
+            return cycleNumber;
+        }
+
+        public List<Visitor> getRiders() {
+            return riders;
+        }
+
+        public int getMaxRider() {
+            return maxRider;
+        }
+    }
+
+    /**
+     * Parameterized constructor
+     * @param ride Ride whose completed cycles are recorded
+     * @param capacity Ring buffer size (minimum: 1); a full buffer blocks the cycle thread
+     */
+    public CyclePipeline(Ride ride, int capacity) {
+        this.ride = ride;
+        this.ringBuffer = new ArrayBlockingQueue<>(capacity >= 1 ? capacity : 1);
+    }
+
+    /**
+     * Starts the background worker thread
+     */
+    public void start() {
+        worker = new Thread(this::drainLoop, ride.getRideName() + "-cycle-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Hands a completed cycle to the background stage (blocks while the ring buffer is full)
+     * @param record Completed cycle
+     * @return true if the record was queued, false if the worker has stopped (record it after stop())
+     * @throws InterruptedException if the cycle thread is interrupted while waiting
+     */
+    public boolean submit(CycleRecord record) throws InterruptedException {
+        while (!ringBuffer.offer(record, HANDOFF_WAIT_MS, TimeUnit.MILLISECONDS)) {
+            if (worker == null || !worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for all submitted cycles to be recorded, then stops the worker thread
+     * Cycles the worker left behind (if it stopped early) are recorded on the calling thread, in order
+     */
+    public void stop() {
+        if (worker == null) {
+            return;
+        }
+        boolean interrupted = false;
+        // 1. Hand over the shutdown marker, unless the worker is already gone
+        while (worker.isAlive()) {
+            try {
+                if (ringBuffer.offer(SHUTDOWN, HANDOFF_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                // Keep waiting - submitted cycles must not be lost
+                interrupted = true;
+            }
+        }
+        // 2. Wait for the worker to finish recording
+        while (true) {
+            try {
+                worker.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        // 3. Record anything still queued (only possible if the worker stopped early)
+        List<CycleRecord> leftover = new ArrayList<>();
+        ringBuffer.drainTo(leftover);
+        for (CycleRecord record : leftover) {
+            if (record != SHUTDOWN) {
+                record(record);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Worker loop: records each completed cycle in submission order until shutdown
+     */
+    private void drainLoop() {
+        while (true) {
+            CycleRecord record;
+            try {
+                record = ringBuffer.take();
+            } catch (InterruptedException e) {
+                System.out.println("[" + ride.getRideName() + "] Cycle pipeline interrupted - stopping worker");
+                return;
+            }
+            if (record == SHUTDOWN) {
+                return;
+            }
+            record(record);
+        }
+    }
+
+    /**
+     * Records one cycle; a failure is logged so it cannot stop the worker and stall the cycle thread
+     */
+    private void record(CycleRecord record) {
+        try {
+            ride.recordCompletedCycle(record);
+        } catch (RuntimeException e) {
+            System.out.println("[" + ride.getRideName() + "] Recording cycle " + record.getCycleNumber()
+                    + " failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Reproducible synthetic dataset generator for scale testing
+ * Writes a visitor CSV and a ride history CSV (format: ID,Name,Age,TicketType,VisitDate)
+ * with skewed ticket types, ticket-dependent ages and bounded power-law repeat riders.
+ * Rows are generated in fixed-size chunks, each seeded from (seed, chunk index), so the
+ * output is identical for a given seed regardless of the number of writer threads.
+ *
+ * Usage: java DatasetGenerator <outputDir> <historyRows> [seed] [threads]
+ */
+public class DatasetGenerator {
+    public static final long MAX_ROWS = 100_000_000L;   // Upper limit on generated history rows
+    public static final int CHUNK_ROWS = 1_000_000;     // Rows per independently seeded chunk
+    public static final int SEASON_DAYS = 90;           // Visit dates span this many days
+    public static final int RIDES_PER_VISITOR = 4;      // Average rides per distinct visitor
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    // Repeat riders: a rider's position x in [0, 1) is drawn with density proportional to
+    // (x + REPEAT_OFFSET)^(-2/3). The offset caps the density at about 24x the average, so the most
+    // loyal visitors expect about 24 * RIDES_PER_VISITOR (~96) rides per season at any dataset size
+    private static final double REPEAT_OFFSET = 0.002;
+    private static final double REPEAT_LOW = Math.cbrt(REPEAT_OFFSET);
+    private static final double REPEAT_HIGH = Math.cbrt(1 + REPEAT_OFFSET);
+
+    // Ticket types and their cumulative weights (Single Day 55%, Annual Pass 20%, Student 15%, Child 7%, Senior 3%)
+    private static final String[] TICKET_TYPES = {"Single Day", "Annual Pass", "Student", "Child", "Senior"};
+    private static final double[] TICKET_CUMULATIVE = {0.55, 0.75, 0.90, 0.97, 1.00};
+
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Chen", "Diana", "Ethan", "Fatima", "George",
+            "Hana", "Ivan", "Julia", "Kenji", "Liam", "Maya", "Noah", "Olivia", "Priya", "Quinn", "Ravi",
+            "Sofia", "Tom", "Uma", "Victor", "Wei", "Xavier", "Yuki", "Zoe"};
+    private static final String[] LAST_NAMES = {"Smith", "Jones", "Wang", "Li", "Brown", "Taylor", "Nguyen",
+            "Patel", "Kim", "Wilson", "Martin", "Lee", "Garcia", "Chen", "Walker", "Singh"};
+
+    private final long seed;       // Base seed for all chunks
+    private final int threads;     // Parallel writer threads
+    private final String[] seasonDates;  // Pre-formatted visit dates (YYYY-MM-DD), one per season day
+
+    /**
+     * Parameterized constructor
+     * @param seed Base random seed (same seed produces the same files)
+     * @param threads Number of parallel writer threads (minimum: 1)
+     */
+    public DatasetGenerator(long seed, int threads) {
+        this.seed = seed;
+        this.threads = threads >= 1 ? threads : 1;
+        this.seasonDates = new String[SEASON_DAYS];
+        LocalDate seasonStart = LocalDate.of(2024, 1, 1);
+        for (int d = 0; d < SEASON_DAYS; d++) {
+            seasonDates[d] = seasonStart.plusDays(d).toString();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java DatasetGenerator <outputDir> <historyRows> [seed] [threads]");
+            return;
+        }
+        try {
+            long rows = Long.parseLong(args[1]);
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+            int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            DatasetGenerator generator = new DatasetGenerator(seed, threads);
+            generator.generate(Paths.get(args[0]), rows);
+        } catch (NumberFormatException e) {
+            System.out.println("Error: historyRows, seed and threads must be numbers!");
+        }
+    }
+
+    /**
+     * Generates visitors.csv and ride_history.csv in the output directory
+     * @param outputDir Directory to write into (created if missing)
+     * @param historyRows Number of ride history rows (1 - MAX_ROWS)
+     */
+    public void generate(Path outputDir, long historyRows) {
+        if (historyRows < 1 || historyRows > MAX_ROWS) {
+            System.out.println("Error: historyRows must be between 1 and " + MAX_ROWS + "!");
+            return;
+        }
+        long visitorCount = Math.max(1, historyRows / RIDES_PER_VISITOR);
+        long start = System.currentTimeMillis();
+        try {
+            Files.createDirectories(outputDir);
+            Path visitorFile = outputDir.resolve("visitors.csv");
+            Path historyFile = outputDir.resolve("ride_history.csv");
+            writeInParallel(visitorFile, visitorCount, visitorCount, false);
+            writeInParallel(historyFile, historyRows, visitorCount, true);
+            long elapsed = System.currentTimeMillis() - start;
+            System.out.printf("Generated %d visitors -> %s (%d bytes)%n", visitorCount, visitorFile, Files.size(visitorFile));
+            System.out.printf("Generated %d history rows -> %s (%d bytes)%n", historyRows, historyFile, Files.size(historyFile));
+            System.out.printf("Finished in %d ms using %d writer thread(s)%n", elapsed, threads);
+        } catch (IOException e) {
+            System.out.println("Dataset generation failed: " + e.getMessage());
+        }
+    }
+
+    // ------------------------------ Parallel Writing ------------------------------
+    /**
+     * Writes rows as independent chunk files in parallel, then concatenates them in chunk order
+     * @param target Final output file
+     * @param rows Number of rows to write
+     * @param visitorCount Size of the visitor population
+     * @param history true for ride history rows, false for one row per distinct visitor
+     */
+    private void writeInParallel(Path target, long rows, long visitorCount, boolean history) throws IOException {
+        int chunks = (int) ((rows + CHUNK_ROWS - 1) / CHUNK_ROWS);
+        List<Path> parts = CsvExporter.createPartFiles(target, chunks);
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks));
+        try {
+            List<Future<?>> futures = new ArrayList<>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                final int chunk = c;
+                final long first = (long) chunk * CHUNK_ROWS;
+                final long count = Math.min(CHUNK_ROWS, rows - first);
+                futures.add(pool.submit(() -> {
+                    writeChunk(parts.get(chunk), chunk, first, count, rows, visitorCount, history);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            CsvExporter.concatenate(parts, target);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Chunk writer failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Concatenation deletes parts as it goes; remove whatever a failure left behind
+            pool.shutdownNow();
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    /**
+     * Writes one chunk of rows to its own part file
+     */
+    private void writeChunk(Path part, int chunk, long first, long count, long totalRows,
+                            long visitorCount, boolean history) throws IOException {
+        SplittableRandom random = new SplittableRandom(mix(seed + chunk * GOLDEN_GAMMA));
+        StringBuilder line = new StringBuilder(64);
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(part), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            for (long r = first; r < first + count; r++) {
+                line.setLength(0);
+                if (history) {
+                    // Chronological dates across the season; bounded power-law choice of rider (repeat riders)
+                    long visitorIndex = pickRepeatRider(random, visitorCount);
+                    int day = (int) (r * SEASON_DAYS / totalRows);
+                    appendVisitor(line, visitorIndex, day);
+                } else {
+                    appendVisitor(line, r, 0);
+                }
+                line.append('\n');
+                writer.append(line);
+            }
+        }
+    }
+
+    // ------------------------------ Row Generation ------------------------------
+    /**
+     * Appends one CSV row for a visitor; identity attributes depend only on (seed, visitorIndex)
+     * so a repeat rider always has the same ID, name, age and ticket type
+     */
+    private void appendVisitor(StringBuilder line, long visitorIndex, int day) {
+        SplittableRandom identity = new SplittableRandom(mix(seed ^ (visitorIndex * GOLDEN_GAMMA)));
+        String ticketType = pickTicketType(identity.nextDouble());
+        int age = pickAge(identity, ticketType);
+
+        line.append('V');
+        long number = visitorIndex + 1;
+        if (number < 100) {
+            line.append(number < 10 ? "00" : "0");
+        }
+        line.append(number).append(',');
+        line.append(FIRST_NAMES[identity.nextInt(FIRST_NAMES.length)]).append(' ')
+                .append(LAST_NAMES[identity.nextInt(LAST_NAMES.length)]).append(',');
+        line.append(age).append(',');
+        line.append(ticketType).append(',');
+        line.append(seasonDates[day]);
+    }
+
+    /**
+     * Picks a rider index by inverting the repeat-rider distribution's CDF:
+     * x = (REPEAT_LOW + u * (REPEAT_HIGH - REPEAT_LOW))^3 - REPEAT_OFFSET
+     */
+    private static long pickRepeatRider(SplittableRandom random, long visitorCount) {
+        double t = REPEAT_LOW + random.nextDouble() * (REPEAT_HIGH - REPEAT_LOW);
+        long index = (long) (visitorCount * (t * t * t - REPEAT_OFFSET));
+        return Math.max(0, Math.min(visitorCount - 1, index));
+    }
+
+    private static String pickTicketType(double u) {
+        for (int i = 0; i < TICKET_CUMULATIVE.length; i++) {
+            if (u < TICKET_CUMULATIVE[i]) {
+                return TICKET_TYPES[i];
+            }
+        }
+        return TICKET_TYPES[TICKET_TYPES.length - 1];
+    }
+
+    /**
+     * Picks an age consistent with the ticket type (valid range: 1-120)
+     */
+    private static int pickAge(SplittableRandom random, String ticketType) {
+        switch (ticketType) {
+            case "Child":
+                return random.nextInt(3, 13);
+            case "Student":
+                return random.nextInt(16, 26);
+            case "Senior":
+                return random.nextInt(65, 91);
+            default:
+                // Approximately normal around 34 (sum of uniforms), clamped to the valid range
+                int age = 10 + random.nextInt(17) + random.nextInt(17) + random.nextInt(17);
+                return Math.max(1, Math.min(120, age));
+        }
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads nearby seeds into unrelated streams
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
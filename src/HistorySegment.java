@@ -0,0 +1,304 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * One segment of a ride's segmented history
+ * Holds a size-bounded run of records (usually one day, or a chunk of one) either on-heap
+ * or spilled to a compact binary file, plus a Bloom filter of the visitor IDs it contains
+ * and the range of visit dates it covers.
+ * Single writer, many readers: records are appended to an array and published by a volatile
+ * size, so readers see a consistent prefix without locking
+ */
+public class HistorySegment {
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;  // Per-segment filter target
+    private static final int NEW_STRING = -1;                      // Dictionary marker in spill files
+    private static final int NULL_STRING = -2;                     // Dictionary marker for a null field
+    private static final int INITIAL_CAPACITY = 16;                // Initial record array length
+    private static final int INITIAL_FILTER_CAPACITY = 64;         // IDs the first Bloom filter is sized for
+
+    private String firstDay;              // Earliest visit date in this segment (null if none yet)
+    private String lastDay;               // Latest visit date in this segment (null if none yet)
+    private volatile BloomFilter idFilter; // Visitor IDs in this segment (grows with the segment)
+    private int filterCapacity;           // IDs the current filter is sized for (writer only)
+    private volatile Visitor[] records;   // On-heap records (null once spilled)
+    private volatile File spillFile;      // Spill file (null while on-heap)
+    private volatile int size;            // Number of published records
+    private long estimatedBytes;          // Approximate on-heap footprint of the records
+    private boolean sealed;               // Sealed segments accept no more records
+
+    /**
+     * Default constructor: opens an empty, unsealed on-heap segment
+     * The record array and Bloom filter start small and double as records arrive,
+     * so a segment costs memory in proportion to what it holds
+     */
+    public HistorySegment() {
+        this.filterCapacity = INITIAL_FILTER_CAPACITY;
+        this.idFilter = new BloomFilter(filterCapacity, BLOOM_FALSE_POSITIVE_RATE);
+        this.records = new Visitor[INITIAL_CAPACITY];
+    }
+
+    // ------------------------------ Getter Methods ------------------------------
+    public String getFirstDay() {
+        return firstDay;
+    }
+
+    public String getLastDay() {
+        return lastDay;
+    }
+
+    /**
+     * Checks whether a visit date falls inside the range of dates this segment covers
+     * Dates are ISO strings (YYYY-MM-DD), so string order is date order; a null date is always covered
+     * @param day Visit date
+     * @return true if firstDay <= day <= lastDay
+     */
+    public boolean coversDay(String day) {
+        if (day == null) {
+            return true;
+        }
+        return firstDay != null && day.compareTo(firstDay) >= 0 && day.compareTo(lastDay) <= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the size of the Bloom filter, which stays on-heap even after the segment is spilled
+     * @return Filter size in bytes
+     */
+    public long getFilterBytes() {
+        return idFilter.getSizeBytes();
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    // ------------------------------ Segment Operations ------------------------------
+    /**
+     * Appends a record to this (unsealed) segment
+     * The record is stored (and a grown array published) before the size is bumped,
+     * so readers that observe the new size also observe the record
+     * @param visitor Visitor record to append
+     */
+    public void add(Visitor visitor) {
+        if (sealed) {
+            throw new IllegalStateException("Cannot add to a sealed history segment");
+        }
+        Visitor[] current = records;
+        int count = size;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            records = current;
+        }
+        if (count == filterCapacity) {
+            // Rebuild a filter twice the size from the published records, then publish it
+            filterCapacity *= 2;
+            BloomFilter grown = new BloomFilter(filterCapacity, BLOOM_FALSE_POSITIVE_RATE);
+            for (int i = 0; i < count; i++) {
+                grown.add(current[i].getId());
+            }
+            idFilter = grown;
+        }
+        current[count] = visitor;
+        idFilter.add(visitor.getId());
+        estimatedBytes += estimateBytes(visitor);
+        String day = visitor.getVisitDate();
+        if (day != null) {
+            if (firstDay == null || day.compareTo(firstDay) < 0) {
+                firstDay = day;
+            }
+            if (lastDay == null || day.compareTo(lastDay) > 0) {
+                lastDay = day;
+            }
+        }
+        size = count + 1;
+    }
+
+    /**
+     * Seals this segment: no further records may be added
+     */
+    public void seal() {
+        sealed = true;
+    }
+
+    /**
+     * Checks whether the segment may contain a visitor ID (Bloom filter only, no scan)
+     * @param id Visitor ID
+     * @return false if the segment definitely does not contain the ID
+     */
+    public boolean mightContain(String id) {
+        // Read size before the filter: any filter seen afterwards covers every published record
+        int count = size;
+        return count > 0 && idFilter.mightContain(id);
+    }
+
+    /**
+     * Checks whether the segment contains a visitor ID
+     * Skips the scan (and any disk read) when the Bloom filter rules the ID out
+     * @param id Visitor ID
+     * @return true if a record with the ID exists in this segment
+     */
+    public boolean contains(String id) {
+        if (!mightContain(id)) {
+            return false;
+        }
+        for (Visitor v : getRecords()) {
+            if (id.equals(v.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the segment's published records, reading them back from disk if spilled
+     * @return Read-only records in insertion order
+     * @throws UncheckedIOException if a spilled segment cannot be read
+     */
+    public List<Visitor> getRecords() {
+        // Read size before the array: any array seen afterwards holds at least that many records
+        int count = size;
+        Visitor[] current = records;
+        if (current != null) {
+            return Collections.unmodifiableList(Arrays.asList(current).subList(0, count));
+        }
+        try {
+            return readSpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled history segment: " + spillFile, e);
+        }
+    }
+
+    /**
+     * Writes a sealed segment to disk and releases its on-heap records
+     * Format: record count, then per record ID, name, age and dictionary-encoded
+     * ticket type and visit date (each distinct string is written once per segment).
+     * Null fields are flagged so they read back as null, not as empty strings.
+     * The file lives until discard() deletes it (clear() and sort() discard every segment)
+     * @param directory Directory to write the spill file into
+     * @throws IOException if the file cannot be written (records stay on-heap)
+     */
+    public void spill(File directory) throws IOException {
+        Visitor[] current = records;
+        int count = size;
+        if (!sealed || current == null) {
+            return;
+        }
+        File file = File.createTempFile("ride-history-", ".seg", directory);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            Map<String, Integer> dictionary = new HashMap<>();
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                Visitor v = current[i];
+                writeNullableString(out, v.getId());
+                writeNullableString(out, v.getName());
+                out.writeInt(v.getAge());
+                writeDictionaryString(out, dictionary, v.getTicketType());
+                writeDictionaryString(out, dictionary, v.getVisitDate());
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        // Publish the file before dropping the array so readers always find one of them
+        spillFile = file;
+        records = null;
+    }
+
+    /**
+     * Deletes the spill file (if any) and drops all records
+     * Callers must ensure no reader is still using this segment
+     */
+    public void discard() {
+        if (spillFile != null) {
+            spillFile.delete();
+            spillFile = null;
+        }
+        records = null;
+        size = 0;
+    }
+
+    // ------------------------------ Helper Methods ------------------------------
+    /**
+     * Reads all records back from the spill file
+     */
+    private List<Visitor> readSpillFile() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)))) {
+            List<String> dictionary = new ArrayList<>();
+            int count = in.readInt();
+            List<Visitor> loaded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String id = readNullableString(in);
+                String name = readNullableString(in);
+                int age = in.readInt();
+                String ticketType = readDictionaryString(in, dictionary);
+                String visitDate = readDictionaryString(in, dictionary);
+                loaded.add(new Visitor(id, name, age, ticketType, visitDate));
+            }
+            return loaded;
+        }
+    }
+
+    private static void writeDictionaryString(DataOutputStream out, Map<String, Integer> dictionary, String value)
+            throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        dictionary.put(value, dictionary.size());
+        out.writeInt(NEW_STRING);
+        out.writeUTF(value);
+    }
+
+    private static String readDictionaryString(DataInputStream in, List<String> dictionary) throws IOException {
+        int index = in.readInt();
+        if (index == NULL_STRING) {
+            return null;
+        }
+        if (index != NEW_STRING) {
+            return dictionary.get(index);
+        }
+        String value = in.readUTF();
+        dictionary.add(value);
+        return value;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Rough on-heap size of one Visitor record (object headers plus string contents)
+     */
+    private static long estimateBytes(Visitor visitor) {
+        long chars = length(visitor.getId()) + length(visitor.getName())
+                + length(visitor.getTicketType()) + length(visitor.getVisitDate());
+        return 96 + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency stress runner for ride history
+ * Boards visitors continuously (single and pipelined cycles) while reader threads check known
+ * and unknown IDs, count and export the history, and a sorter periodically rewrites it.
+ * A dedicated counter thread polls the history size in a tight loop, so a count that drops
+ * while a sort rewrites the history is caught.
+ * A small segment size and memory budget force segment sealing and spilling during the run.
+ * Any wrong answer, lost rider or exception is counted and reported at the end.
+ *
+ * Usage: java HistoryStressRunner [seconds] [readers] [workDir]
+ */
+public class HistoryStressRunner {
+    public static final int DEFAULT_SECONDS = 10;        // Run length
+    public static final int DEFAULT_READERS = 4;         // Concurrent reader threads
+    private static final int MAX_RIDER = 50;             // Riders per cycle
+    private static final int SEGMENT_SIZE = 500;         // Small segments so many are sealed
+    private static final long MEMORY_BUDGET = 256 * 1024; // Small budget so segments spill (256 KB)
+    private static final int MAX_WAITING = 5_000;        // Producer pauses when this many are waiting
+    private static final long SORT_INTERVAL_MS = 1_000;  // Time between sorts
+    private static final int EXPORT_EVERY = 200;         // Reader 0 exports once per this many checks
+    private static final int MAX_REPORTED_ERRORS = 10;   // Error messages kept for the report
+
+    private final int seconds;      // Run length in seconds
+    private final int readers;      // Number of reader threads
+    private final Path workDir;     // Spill and export directory
+    private final Ride ride;        // Ride under test
+
+    private final AtomicInteger produced = new AtomicInteger();   // Visitors queued so far
+    private final AtomicInteger boarded = new AtomicInteger();    // Riders known to be in history
+    private final AtomicLong checks = new AtomicLong();           // Membership checks performed
+    private final AtomicLong counts = new AtomicLong();           // History counts by the counter thread
+    private final AtomicLong exports = new AtomicLong();          // Exports performed
+    private final AtomicLong sorts = new AtomicLong();            // Sorts performed
+    private final AtomicLong errors = new AtomicLong();           // Failed assertions and exceptions
+    private final List<String> errorMessages = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean running = true;
+
+    /**
+     * Parameterized constructor
+     * @param seconds Run length in seconds (minimum: 1)
+     * @param readers Number of reader threads (minimum: 1)
+     * @param workDir Directory for spill files and exports (created if missing)
+     */
+    public HistoryStressRunner(int seconds, int readers, Path workDir) {
+        this.seconds = seconds >= 1 ? seconds : 1;
+        this.readers = readers >= 1 ? readers : 1;
+        this.workDir = workDir;
+        this.ride = new Ride("R-STRESS", "Stress Coaster",
+                new Employee("E-STRESS", "Stress Operator", 30, "Ride Operator", true), MAX_RIDER);
+        ride.setHistorySegmentSize(SEGMENT_SIZE);
+        ride.setHistoryMemoryBudget(MEMORY_BUDGET);
+        ride.setHistorySpillDirectory(workDir.toString());
+    }
+
+    public static void main(String[] args) {
+        try {
+            int seconds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+            int readers = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_READERS;
+            Path workDir = args.length > 2 ? Paths.get(args[2]) : Files.createTempDirectory("ride-stress-");
+            Files.createDirectories(workDir);
+            boolean passed = new HistoryStressRunner(seconds, readers, workDir).run();
+            System.out.println(passed ? "Stress run PASSED" : "Stress run FAILED");
+        } catch (NumberFormatException e) {
+            System.out.println("Error: seconds and readers must be numbers!");
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error: Cannot create work directory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs all threads for the configured time, then verifies the final history
+     * Ride methods log every operation, so their console output is discarded while the run is active
+     * @return true if no errors were observed
+     */
+    public boolean run() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ExecutorService pool = Executors.newFixedThreadPool(readers + 4);
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(pool.submit(this::produce));
+            futures.add(pool.submit(this::board));
+            futures.add(pool.submit(this::sortPeriodically));
+            futures.add(pool.submit(this::countContinuously));
+            for (int r = 0; r < readers; r++) {
+                final int reader = r;
+                futures.add(pool.submit(() -> query(reader)));
+            }
+            Thread.sleep(seconds * 1000L);
+            running = false;
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            verifyFinalHistory();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail("Stress run interrupted");
+        } catch (ExecutionException e) {
+            fail("Worker thread failed: " + e.getCause());
+        } finally {
+            running = false;
+            pool.shutdownNow();
+            System.setOut(console);
+        }
+        printReport(System.currentTimeMillis() - start);
+        return errors.get() == 0;
+    }
+
+    // ------------------------------ Worker Threads ------------------------------
+    /**
+     * Queues sequentially numbered visitors, spreading them over visit dates so segments seal by day
+     */
+    private void produce() {
+        while (running) {
+            if (produced.get() - boarded.get() >= MAX_WAITING) {
+                Thread.yield();
+                continue;
+            }
+            int n = produced.get();
+            ride.addVisitorToQueue(new Visitor(visitorId(n), "Visitor " + n, 18 + n % 60,
+                    n % 3 == 0 ? "Annual Pass" : "Single Day", visitDate(n)));
+            produced.incrementAndGet();
+        }
+    }
+
+    /**
+     * Boards riders with alternating single and pipelined cycles
+     * Visitors board in FIFO order, so after each run every ID below the history size is recorded
+     */
+    private void board() {
+        int round = 0;
+        while (running) {
+            final boolean pipelined = round % 2 == 1;
+            guard(() -> {
+                if (produced.get() == boarded.get()) {
+                    Thread.yield();
+                    return;
+                }
+                if (pipelined) {
+                    ride.runPipelinedCycles(5);
+                } else {
+                    ride.runOneCycle();
+                }
+                int recorded = ride.numberOfVisitors();
+                if (recorded < boarded.get()) {
+                    fail("History shrank from " + boarded.get() + " to " + recorded);
+                }
+                boarded.set(recorded);
+            });
+            round++;
+        }
+    }
+
+    /**
+     * Sorts the history at a fixed interval (excludes readers, must not lose records)
+     */
+    private void sortPeriodically() {
+        while (running) {
+            try {
+                Thread.sleep(SORT_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            guard(() -> {
+                int before = boarded.get();
+                ride.sortRideHistory(new VisitorComparator());
+                int after = ride.numberOfVisitors();
+                if (after < before) {
+                    fail("Sort lost records: " + before + " before, " + after + " after");
+                }
+                sorts.incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * Polls the history size without pause; it must never fall below the riders already boarded
+     */
+    private void countContinuously() {
+        while (running) {
+            guard(() -> {
+                int known = boarded.get();
+                int counted = ride.numberOfVisitors();
+                if (counted < known) {
+                    fail("History count " + counted + " below boarded riders " + known);
+                }
+                counts.incrementAndGet();
+            });
+        }
+    }
+
+    /**
+     * Checks known IDs (must be found), unknown IDs (must not be found) and counts;
+     * reader 0 also exports now and then and checks the exported row count
+     */
+    private void query(int reader) {
+        SplittableRandom random = new SplittableRandom(reader);
+        while (running) {
+            guard(() -> {
+                int known = boarded.get();
+                if (known > 0) {
+                    String id = visitorId(random.nextInt(known));
+                    if (!ride.checkVisitorFromHistory(new Visitor(id, "Known", 30, "Single Day", visitDate(0)))) {
+                        fail("Boarded visitor not found: " + id);
+                    }
+                }
+                String unknown = "X" + random.nextInt(1_000_000);
+                if (ride.checkVisitorFromHistory(new Visitor(unknown, "Unknown", 30, "Single Day", visitDate(0)))) {
+                    fail("Unknown visitor reported in history: " + unknown);
+                }
+                if (ride.numberOfVisitors() < known) {
+                    fail("History count below boarded riders: " + known);
+                }
+                long done = checks.incrementAndGet();
+                if (reader == 0 && done % EXPORT_EVERY == 0) {
+                    exportAndCount(known);
+                }
+            });
+        }
+    }
+
+    // ------------------------------ Verification ------------------------------
+    /**
+     * Exports the history and checks it holds at least the riders boarded before the export began
+     */
+    private void exportAndCount(int minimumRows) throws IOException {
+        Path export = workDir.resolve("stress-export.csv");
+        Files.deleteIfExists(export);
+        ride.exportRideHistory(export.toString());
+        long rows;
+        try (BufferedReader reader = Files.newBufferedReader(export)) {
+            rows = reader.lines().count();
+        }
+        if (rows < minimumRows) {
+            fail("Export has " + rows + " rows, expected at least " + minimumRows);
+        }
+        exports.incrementAndGet();
+    }
+
+    /**
+     * After all threads stop: every boarded ID is present exactly once
+     */
+    private void verifyFinalHistory() {
+        guard(() -> {
+            Path export = workDir.resolve("stress-final.csv");
+            ride.exportRideHistory(export.toString());
+            int expected = ride.numberOfVisitors();
+            Set<String> ids = new HashSet<>();
+            try (BufferedReader reader = Files.newBufferedReader(export)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Visitor visitor = Visitor.fromCsvString(line);
+                    if (visitor == null || !ids.add(visitor.getId())) {
+                        fail("Invalid or duplicate history row: " + line);
+                    }
+                }
+            }
+            if (ids.size() != expected) {
+                fail("Final history has " + ids.size() + " distinct riders, expected " + expected);
+            }
+            for (int n = 0; n < expected; n++) {
+                if (!ids.contains(visitorId(n))) {
+                    fail("Final history is missing " + visitorId(n));
+                    break;
+                }
+            }
+            Files.deleteIfExists(export);
+            Files.deleteIfExists(workDir.resolve("stress-export.csv"));
+        });
+    }
+
+    private void printReport(long elapsedMs) {
+        System.out.printf("Stress run: %d ms, %d reader(s)%n", elapsedMs, readers);
+        System.out.printf("  Visitors queued: %d | boarded: %d | cycles: %d%n",
+                produced.get(), boarded.get(), ride.getNumOfCycles());
+        System.out.printf("  Membership checks: %d | counts: %d | exports: %d | sorts: %d%n",
+                checks.get(), counts.get(), exports.get(), sorts.get());
+        System.out.printf("  History filter estimated false-positive rate: %.4f%%%n",
+                ride.getHistoryFilterFalsePositiveRate() * 100);
+        System.out.println("  Errors: " + errors.get());
+        synchronized (errorMessages) {
+            for (String message : errorMessages) {
+                System.out.println("    - " + message);
+            }
+        }
+    }
+
+    // ------------------------------ Helper Methods ------------------------------
+    /**
+     * Action that may throw; any exception is recorded as an error instead of ending the thread
+     */
+    private interface StressAction {
+        void run() throws Exception;
+    }
+
+    private void guard(StressAction action) {
+        try {
+            action.run();
+        } catch (Exception e) {
+            fail(Thread.currentThread().getName() + " threw " + e);
+        }
+    }
+
+    private void fail(String message) {
+        errors.incrementAndGet();
+        if (errorMessages.size() < MAX_REPORTED_ERRORS) {
+            errorMessages.add(message);
+        }
+    }
+
+    private static String visitorId(int n) {
+        return String.format("V%07d", n);
+    }
+
+    /**
+     * Visit date for the n-th visitor: 1000 visitors per day
+     */
+    private static String visitDate(int n) {
+        return String.format("2024-%02d-%02d", 1 + (n / 1000 / 28) % 12, 1 + (n / 1000) % 28);
+    }
+}
@@ -8,6 +8,7 @@ public class Main {
     private static Scanner scanner = new Scanner(System.in);
     private static Ride activeRide;  // Current ride being managed
     private static Employee activeOperator;  // Current operator for the ride
+    private static VisitorDirectory visitorDirectory = new VisitorDirectory();  // Park-wide visitor directory
 
     public static void main(String[] args) {
         System.out.println("==================================== THEME PARK MANAGEMENT SYSTEM (PRVMS) ====================================");
@@ -59,6 +60,7 @@ public class Main {
 
         // Create ride object
         activeRide = new Ride(rideId, rideName, activeOperator, maxRiders);
+        activeRide.setVisitorDirectory(visitorDirectory);
         System.out.println("\nRide initialized successfully: " + activeRide.getRideName() + " (Max Riders: " + maxRiders + ")");
     }
 
@@ -75,10 +77,13 @@ public class Main {
             System.out.println("4. Run Ride Cycle");
             System.out.println("5. Export Ride History to CSV");
             System.out.println("6. Import Ride History from CSV");
+            System.out.println("7. Print Ride Statistics");
+            System.out.println("8. Run Pipelined Ride Cycles");
+            System.out.println("9. Fast Export Ride History to CSV (Parallel)");
             System.out.println("0. Exit System");
             System.out.print("==================================================================================");
-            System.out.print("\nEnter your choice (0-6): ");
-            choice = getValidIntegerInput(0, 6);
+            System.out.print("\nEnter your choice (0-9): ");
+            choice = getValidIntegerInput(0, 9);
 
             // Handle menu choice
             switch (choice) {
@@ -100,10 +105,21 @@ public class Main {
                 case 6:
                     handleImportHistory();
                     break;
+                case 7:
+                    activeRide.printStatistics();
+                    break;
+                case 8:
+                    System.out.print("\nEnter number of cycles to run (min: 1): ");
+                    int cycles = getValidIntegerInput(1, Integer.MAX_VALUE);
+                    activeRide.runPipelinedCycles(cycles);
+                    break;
+                case 9:
+                    handleFastExportHistory();
+                    break;
                 case 0:
                     break;
                 default:
-                    System.out.println("Invalid choice! Please enter a number between 0 and 6.");
+                    System.out.println("Invalid choice! Please enter a number between 0 and 9.");
             }
         } while (choice != 0);
     }
@@ -157,10 +173,11 @@ public class Main {
             System.out.println("2. Check Visitor in History");
             System.out.println("3. Print Total Historical Visitors");
             System.out.println("4. Print Full Ride History");
+            System.out.println("5. Print Rides Taken by Visitor (Park-wide)");
             System.out.println("0. Return to Main Menu");
             System.out.print("==================================================================================================");
-            System.out.print("\nEnter your choice (0-4): ");
-            choice = getValidIntegerInput(0, 4);
+            System.out.print("\nEnter your choice (0-5): ");
+            choice = getValidIntegerInput(0, 5);
 
             switch (choice) {
                 case 1:
@@ -186,10 +203,16 @@ public class Main {
                 case 4:
                     activeRide.printRideHistory();
                     break;
+                case 5:
+                    // Cross-ride lookup through the shared visitor directory
+                    System.out.print("\nVisitor ID: ");
+                    String lookupId = scanner.nextLine().trim();
+                    visitorDirectory.printRidesTaken(lookupId);
+                    break;
                 case 0:
                     break;
                 default:
-                    System.out.println("Invalid choice! Please enter a number between 0 and 4.");
+                    System.out.println("Invalid choice! Please enter a number between 0 and 5.");
             }
         } while (choice != 0);
     }
@@ -216,6 +239,19 @@ public class Main {
         activeRide.exportRideHistory(filePath);
     }
 
+    /**
+     * Handles exporting ride history to CSV with direct buffers and parallel writers
+     */
+    private static void handleFastExportHistory() {
+        System.out.println("\n==================================== FAST EXPORT HISTORY TO CSV ====================================");
+        System.out.print("Enter file path to save CSV (e.g., ride_history.csv): ");
+        String filePath = scanner.nextLine().trim();
+        System.out.print("Enter number of writer threads (1-64, this machine has "
+                + Runtime.getRuntime().availableProcessors() + " cores): ");
+        int threads = getValidIntegerInput(1, 64);
+        activeRide.exportRideHistoryFast(filePath, threads);
+    }
+
     /**
      * Handles importing ride history from CSV
      */
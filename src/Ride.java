@@ -1,9 +1,21 @@
 import java.io.*;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Ride class implementing RideInterface
  * Manages core ride functionalities: queue, history, operations, and file I/O
+ *
+ * Concurrency model: history writers (boarding, import, sort) are serialized by a writer lock.
+ * Boarding only appends, and appends are published without blocking readers, so history
+ * queries (check, count, print, export) never block boarding. Only sortRideHistory rewrites
+ * the history in place, and it takes the StampedLock write lock to exclude readers meanwhile.
+ * Lock order: structureLock before historyWriteLock (only sortRideHistory holds both).
  */
 public class Ride implements RideInterface {
     // ------------------------------ Core Attributes (Part 1) ------------------------------
@@ -11,20 +23,38 @@ public class Ride implements RideInterface {
     private String rideName;     // Ride name (e.g., "Roller Coaster", "Ferris Wheel")
     private Employee operator;   // Assigned operator (controls ride availability)
     private int maxRider;        // Maximum riders per cycle (minimum: 1)
-    private int numOfCycles;     // Total number of cycles operated (default: 0)
+    private volatile int numOfCycles; // Total number of cycles operated (default: 0)
 
     // ------------------------------ Collection Attributes (Part 3/4) ------------------------------
-    private Queue<Visitor> waitingQueue;    // FIFO queue for waiting visitors (LinkedList implementation)
-    private LinkedList<Visitor> rideHistory;// Historical records of riders (supports Iterator)
+    private Queue<Visitor> waitingQueue;    // FIFO queue for waiting visitors (lock-free concurrent queue)
+    private SegmentedHistory rideHistory;   // Historical records of riders (day segments, supports Iterator)
+
+    // ------------------------------ Park-wide Attributes ------------------------------
+    private VisitorDirectory visitorDirectory; // Shared visitor directory (optional, may be null)
+    private final RideStatistics statistics = new RideStatistics(); // Incremental ride analytics
+
+    // ------------------------------ History Membership Filter ------------------------------
+    public static final long DEFAULT_EXPECTED_SEASON_VOLUME = 1_000_000L; // Expected riders per season
+    public static final double HISTORY_FILTER_TARGET_FPR = 0.01;          // Target false-positive rate
+    private long expectedSeasonVolume;   // Riders the history filter is sized for
+    private volatile BloomFilter historyFilter; // Visitor IDs in rideHistory (fast path for negative checks)
+    private long historyFilterRebuildAt; // Distinct IDs at which the filter is next rebuilt (writer only)
+
+    // ------------------------------ Concurrency Control ------------------------------
+    private final ReentrantLock historyWriteLock = new ReentrantLock(); // Serializes history writers
+    private final StampedLock structureLock = new StampedLock();        // Excludes readers during sort only
 
     // ------------------------------ Constructors ------------------------------
     /**
      * Default constructor: Initializes collections and default values
      */
     public Ride() {
-        this.waitingQueue = new LinkedList<>();  // LinkedList for efficient queue operations
-        this.rideHistory = new LinkedList<>();   // LinkedList for Iterator support
+        this.waitingQueue = new ConcurrentLinkedQueue<>();  // Safe for concurrent arrivals and boarding
+        this.rideHistory = new SegmentedHistory(); // Segmented history with Iterator support
         this.numOfCycles = 0;                    // Start with 0 operated cycles
+        this.expectedSeasonVolume = DEFAULT_EXPECTED_SEASON_VOLUME;
+        this.historyFilter = new BloomFilter(expectedSeasonVolume, HISTORY_FILTER_TARGET_FPR);
+        this.historyFilterRebuildAt = historyFilter.getCapacity();
     }
 
     /**
@@ -80,6 +110,91 @@ public class Ride implements RideInterface {
         return numOfCycles;
     }
 
+    /**
+     * Sets the maximum number of records per history segment
+     * @param maxSegmentSize Records per segment (minimum: 1)
+     */
+    public void setHistorySegmentSize(int maxSegmentSize) {
+        historyWriteLock.lock();
+        try {
+            rideHistory.setMaxSegmentSize(maxSegmentSize);
+        } finally {
+            historyWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the on-heap memory budget for history; older sealed segments beyond it are spilled to disk
+     * @param memoryBudgetBytes Budget in bytes (estimated)
+     */
+    public void setHistoryMemoryBudget(long memoryBudgetBytes) {
+        historyWriteLock.lock();
+        try {
+            rideHistory.setMemoryBudget(memoryBudgetBytes);
+        } finally {
+            historyWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the directory that sealed history segments are spilled to
+     * @param directoryPath Spill directory path
+     */
+    public void setHistorySpillDirectory(String directoryPath) {
+        historyWriteLock.lock();
+        try {
+            rideHistory.setSpillDirectory(new File(directoryPath));
+        } finally {
+            historyWriteLock.unlock();
+        }
+    }
+
+    public long getExpectedSeasonVolume() {
+        return expectedSeasonVolume;
+    }
+
+    /**
+     * Sets the expected season volume and resizes the history membership filter
+     * @param expectedSeasonVolume Expected riders per season (minimum: 1)
+     */
+    public void setExpectedSeasonVolume(long expectedSeasonVolume) {
+        historyWriteLock.lock();
+        try {
+            this.expectedSeasonVolume = Math.max(1, expectedSeasonVolume);
+            rebuildHistoryFilter();
+        } finally {
+            historyWriteLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated false-positive rate of the history membership filter
+     * @return Probability that a visitor who has not ridden still needs a history scan
+     */
+    public double getHistoryFilterFalsePositiveRate() {
+        return historyFilter.estimatedFalsePositiveRate();
+    }
+
+    public RideStatistics getStatistics() {
+        return statistics;
+    }
+
+    public VisitorDirectory getVisitorDirectory() {
+        return visitorDirectory;
+    }
+
+    /**
+     * Attaches a park-wide visitor directory; boarded visitors are recorded in it
+     * (history keeps each boarding's own record, including its visit date and ticket type)
+     * @param visitorDirectory Shared directory (null to detach)
+     */
+    public void setVisitorDirectory(VisitorDirectory visitorDirectory) {
+        this.visitorDirectory = visitorDirectory;
+        if (visitorDirectory != null) {
+            visitorDirectory.registerRide(this);
+        }
+    }
+
     // ------------------------------ Queue Management Implementation (Part 3) ------------------------------
     @Override
     public void addVisitorToQueue(Visitor visitor) {
@@ -127,7 +242,12 @@ public class Ride implements RideInterface {
             System.out.println("[" + rideName + "] Error: Cannot add null visitor to history!");
             return;
         }
-        rideHistory.add(visitor);
+        historyWriteLock.lock();
+        try {
+            appendToHistory(visitor);
+        } finally {
+            historyWriteLock.unlock();
+        }
         System.out.println("[" + rideName + "] Successfully added visitor to history: " + visitor.getName());
     }
 
@@ -138,20 +258,33 @@ public class Ride implements RideInterface {
             return false;
         }
 
-        // Check history by visitor ID (unique identifier)
-        for (Visitor v : rideHistory) {
-            if (v.getId().equals(visitor.getId())) {
-                System.out.println("[" + rideName + "] Visitor found in history: " + visitor.getName());
-                return true;
+        // Fast path: the ride-level filter answers most negative checks without touching the history
+        boolean mightContain = historyFilter.mightContain(visitor.getId());
+        boolean found = false;
+        if (mightContain) {
+            // Check history by visitor ID (unique identifier); segment Bloom filters skip irrelevant segments
+            long stamp = structureLock.readLock();
+            try {
+                found = rideHistory.contains(visitor.getId());
+            } catch (UncheckedIOException e) {
+                System.out.println("[" + rideName + "] History check failed: " + e.getMessage());
+                return false;
+            } finally {
+                structureLock.unlockRead(stamp);
             }
         }
+        statistics.recordMembershipCheck(mightContain, found);
+        if (found) {
+            System.out.println("[" + rideName + "] Visitor found in history: " + visitor.getName());
+            return true;
+        }
         System.out.println("[" + rideName + "] Visitor NOT found in history: " + visitor.getName());
         return false;
     }
 
     @Override
     public int numberOfVisitors() {
-        int count = rideHistory.size();
+        int count = historySize();
         System.out.println("[" + rideName + "] Total visitors in history: " + count);
         return count;
     }
@@ -159,21 +292,28 @@ public class Ride implements RideInterface {
     @Override
     public void printRideHistory() {
         System.out.println("\n[" + rideName + "] Ride History Status:");
-        if (rideHistory.isEmpty()) {
+        if (historySize() == 0) {
             System.out.println("  Ride history is empty");
             return;
         }
 
-        System.out.println("  Total historical visitors: " + rideHistory.size());
-        System.out.println("  Visitor List (Iterator Traversal):");
-        int index = 1;
-        // Mandatory Iterator usage (assignment requirement)
-        Iterator<Visitor> iterator = rideHistory.iterator();
-        while (iterator.hasNext()) {
-            Visitor visitor = iterator.next();
-            System.out.printf("    %d. ID: %s | Name: %s | Age: %d | Ticket: %s | Date: %s%n",
-                    index++, visitor.getId(), visitor.getName(), visitor.getAge(),
-                    visitor.getTicketType(), visitor.getVisitDate());
+        long stamp = structureLock.readLock();
+        try {
+            System.out.println("  Total historical visitors: " + rideHistory.size());
+            System.out.println("  Visitor List (Iterator Traversal):");
+            int index = 1;
+            // Mandatory Iterator usage (assignment requirement); sees a snapshot of published records
+            Iterator<Visitor> iterator = rideHistory.iterator();
+            while (iterator.hasNext()) {
+                Visitor visitor = iterator.next();
+                System.out.printf("    %d. ID: %s | Name: %s | Age: %d | Ticket: %s | Date: %s%n",
+                        index++, visitor.getId(), visitor.getName(), visitor.getAge(),
+                        visitor.getTicketType(), visitor.getVisitDate());
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("[" + rideName + "] Print history failed: " + e.getMessage());
+        } finally {
+            structureLock.unlockRead(stamp);
         }
     }
 
@@ -187,18 +327,32 @@ public class Ride implements RideInterface {
             System.out.println("[" + rideName + "] Error: Cannot sort - comparator is null!");
             return;
         }
-        if (rideHistory.isEmpty()) {
+        if (historySize() == 0) {
             System.out.println("[" + rideName + "] Error: Cannot sort - ride history is empty!");
             return;
         }
 
-        Collections.sort(rideHistory, comparator);
+        // Sorting rewrites the segments: exclude all readers and other writers while it runs.
+        // Wait for readers (e.g., a long export) before taking the writer lock, so boarding
+        // keeps appending until the rewrite can actually start
+        long stamp = structureLock.writeLock();
+        historyWriteLock.lock();
+        try {
+            rideHistory.sort(comparator);
+        } catch (UncheckedIOException e) {
+            // Spilled segments are read back before the history is cleared, so it is left unchanged
+            System.out.println("[" + rideName + "] Sort failed: " + e.getMessage());
+            return;
+        } finally {
+            historyWriteLock.unlock();
+            structureLock.unlockWrite(stamp);
+        }
         System.out.println("[" + rideName + "] Ride history sorted successfully (Age → Name)");
     }
 
     // ------------------------------ Ride Cycle Operation (Part 5) ------------------------------
     @Override
-    public void runOneCycle() {
+    public synchronized void runOneCycle() {
         System.out.println("\n[" + rideName + "] Attempting to start one ride cycle...");
 
         // 1. Validate operator availability
@@ -215,14 +369,15 @@ public class Ride implements RideInterface {
 
         // 3. Board riders (up to maxRider) and update history
         int ridersBoarded = 0;
-        while (!waitingQueue.isEmpty() && ridersBoarded < maxRider) {
-            Visitor rider = waitingQueue.poll();
+        Visitor rider;
+        while (ridersBoarded < maxRider && (rider = waitingQueue.poll()) != null) {
             addVisitorToHistory(rider);
             ridersBoarded++;
         }
 
-        // 4. Update cycle count
+        // 4. Update cycle count and cycle-level statistics
         numOfCycles++;
+        statistics.recordCycle(ridersBoarded, maxRider);
 
         // 5. Print cycle completion details
         System.out.println("[" + rideName + "] Ride cycle completed successfully!");
@@ -230,17 +385,116 @@ public class Ride implements RideInterface {
         System.out.printf("  - Total cycles operated: %d%n", numOfCycles);
     }
 
+    // ------------------------------ Pipelined Ride Cycles ------------------------------
+    /**
+     * Runs several ride cycles in pipelined mode
+     * The next batch is staged from the queue while the current batch is riding;
+     * history recording, logging and statistics run on a background stage
+     * @param cycles Maximum number of cycles to run (minimum: 1)
+     */
+    public synchronized void runPipelinedCycles(int cycles) {
+        System.out.println("\n[" + rideName + "] Attempting to start " + cycles + " pipelined ride cycle(s)...");
+
+        // 1. Validate operator availability, cycle count and non-empty queue
+        if (operator == null || !operator.isAvailable()) {
+            System.out.println("[" + rideName + "] Error: Cannot start cycles - no available operator!");
+            return;
+        }
+        if (cycles < 1) {
+            System.out.println("[" + rideName + "] Error: Cannot start cycles - cycle count must be at least 1!");
+            return;
+        }
+        if (waitingQueue.isEmpty()) {
+            System.out.println("[" + rideName + "] Error: Cannot start cycles - queue is empty!");
+            return;
+        }
+
+        // 2. Start the background stage and stage the first batch
+        CyclePipeline pipeline = new CyclePipeline(this, CyclePipeline.DEFAULT_CAPACITY);
+        pipeline.start();
+        int cyclesRun = 0;
+        CyclePipeline.CycleRecord notHandedOff = null; // Batch that rode but never reached the worker
+        try {
+            List<Visitor> staged = stageNextBatch();
+            while (!staged.isEmpty() && cyclesRun < cycles) {
+                // 3. Current batch rides; hand it to the background stage
+                numOfCycles++;
+                cyclesRun++;
+                CyclePipeline.CycleRecord record = new CyclePipeline.CycleRecord(numOfCycles, staged, maxRider);
+                try {
+                    if (!pipeline.submit(record)) {
+                        System.out.println("[" + rideName + "] Error: Cycle pipeline stopped - ending run early");
+                        notHandedOff = record;
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    notHandedOff = record;
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                // 4. Stage the next batch while the current one is riding
+                staged = cyclesRun < cycles ? stageNextBatch() : new ArrayList<>();
+            }
+        } finally {
+            // 5. Wait for the background stage to record every submitted cycle
+            pipeline.stop();
+        }
+        // 6. Record the last batch directly (after the worker is done, so cycle order holds)
+        if (notHandedOff != null) {
+            recordCompletedCycle(notHandedOff);
+        }
+        System.out.println("[" + rideName + "] Pipelined run finished: " + cyclesRun + " cycle(s) operated");
+    }
+
+    /**
+     * Polls up to maxRider visitors from the waiting queue
+     * @return Batch of riders for the next cycle (empty if the queue is empty)
+     */
+    private List<Visitor> stageNextBatch() {
+        List<Visitor> batch = new ArrayList<>();
+        Visitor rider;
+        while (batch.size() < maxRider && (rider = waitingQueue.poll()) != null) {
+            batch.add(rider);
+        }
+        return batch;
+    }
+
+    /**
+     * Records a completed cycle: history, statistics and cycle log
+     * Called by the pipeline's background stage
+     * @param record Completed cycle
+     */
+    void recordCompletedCycle(CyclePipeline.CycleRecord record) {
+        for (Visitor rider : record.getRiders()) {
+            addVisitorToHistory(rider);
+        }
+        statistics.recordCycle(record.getRiders().size(), record.getMaxRider());
+        System.out.println("[" + rideName + "] Ride cycle " + record.getCycleNumber() + " completed successfully!");
+        System.out.printf("  - Riders boarded: %d (Max capacity: %d)%n", record.getRiders().size(), record.getMaxRider());
+    }
+
+    /**
+     * Prints the incrementally maintained ride statistics (no history scan)
+     */
+    public void printStatistics() {
+        statistics.printStatistics(rideName);
+        System.out.printf("  History filter estimated false-positive rate: %.4f%%%n",
+                getHistoryFilterFalsePositiveRate() * 100);
+    }
+
     // ------------------------------ File Export (Part 6) ------------------------------
     /**
      * Exports ride history to a CSV file
      * @param filePath Path to save the CSV file (e.g., "ride_history.csv")
      */
     public void exportRideHistory(String filePath) {
-        if (rideHistory.isEmpty()) {
+        if (historySize() == 0) {
             System.out.println("[" + rideName + "] Error: Cannot export - ride history is empty!");
             return;
         }
 
+        long stamp = structureLock.readLock();
         // Try-with-resources to auto-close the writer (resource management)
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
             // Write each visitor as a CSV line
@@ -249,8 +503,38 @@ public class Ride implements RideInterface {
                 writer.newLine();  // New line for each visitor
             }
             System.out.println("[" + rideName + "] Successfully exported history to: " + filePath);
-        } catch (IOException e) {
+        } catch (IOException | UncheckedIOException e) {
             System.out.println("[" + rideName + "] Export failed: " + e.getMessage());
+        } finally {
+            structureLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Exports ride history to a UTF-8 CSV file using direct buffers and FileChannel
+     * Produces the same lines as exportRideHistory without building a String per row
+     * @param filePath Path to save the CSV file (e.g., "ride_history.csv")
+     * @param threads Number of writer threads (1 = sequential; more encodes runs of segments in parallel)
+     */
+    public void exportRideHistoryFast(String filePath, int threads) {
+        if (historySize() == 0) {
+            System.out.println("[" + rideName + "] Error: Cannot export - ride history is empty!");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long stamp = structureLock.readLock();
+        try {
+            Path target = Paths.get(filePath);
+            long bytes = threads > 1
+                    ? CsvExporter.exportParallel(rideHistory.publishedSegments(), target, threads)
+                    : CsvExporter.export(rideHistory, target);
+            System.out.printf("[%s] Successfully exported history to: %s (%d bytes in %d ms)%n",
+                    rideName, filePath, bytes, System.currentTimeMillis() - start);
+        } catch (IOException | UncheckedIOException | InvalidPathException e) {
+            System.out.println("[" + rideName + "] Export failed: " + e.getMessage());
+        } finally {
+            structureLock.unlockRead(stamp);
         }
     }
 
@@ -268,6 +552,7 @@ public class Ride implements RideInterface {
         }
 
         int importedCount = 0;
+        historyWriteLock.lock();
         // Try-with-resources to auto-close the reader (resource management)
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
@@ -276,7 +561,7 @@ public class Ride implements RideInterface {
                 // Parse CSV line to Visitor object
                 Visitor visitor = Visitor.fromCsvString(line);
                 if (visitor != null) {
-                    rideHistory.add(visitor);
+                    appendToHistory(visitor);
                     importedCount++;
                 } else {
                     System.out.println("[" + rideName + "] Skipping invalid CSV line: " + line);
@@ -285,6 +570,78 @@ public class Ride implements RideInterface {
             System.out.println("[" + rideName + "] Import completed! Total visitors imported: " + importedCount);
         } catch (IOException e) {
             System.out.println("[" + rideName + "] Import failed: " + e.getMessage());
+        } finally {
+            try {
+                // Rebuild the membership filter so it matches (and is sized for) the imported history
+                rebuildHistoryFilter();
+            } finally {
+                historyWriteLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Appends one record to the history and its derived structures (caller holds historyWriteLock)
+     * The filter is updated before the record is published, so a reader that can see the record
+     * never gets a false negative from the filter. Once the filter holds as many distinct IDs as
+     * it was sized for (repeat rides do not count), it is rebuilt first, so its false-positive
+     * rate stays near the target
+     * @param visitor Visitor record to append
+     */
+    private void appendToHistory(Visitor visitor) {
+        // Mark this ride in the visitor's bitmap (visitors without an ID are skipped by the directory)
+        if (visitorDirectory != null) {
+            visitorDirectory.recordRide(visitor, this);
+        }
+        if (historyFilter.getDistinctInsertions() >= historyFilterRebuildAt) {
+            rebuildHistoryFilter();
+        }
+        historyFilter.add(visitor.getId());
+        rideHistory.add(visitor);
+        statistics.recordRider(visitor);
+    }
+
+    /**
+     * Reads the history size without blocking boarding
+     * A sort empties and refills the history under the write lock, so a count read while one runs
+     * is discarded and re-read under the read lock once the sort has finished
+     * @return Number of records in the history
+     */
+    private int historySize() {
+        long stamp = structureLock.tryOptimisticRead();
+        int count = rideHistory.size();
+        if (structureLock.validate(stamp)) {
+            return count;
+        }
+        stamp = structureLock.readLock();
+        try {
+            return rideHistory.size();
+        } finally {
+            structureLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Rebuilds the history membership filter from the full history (caller holds historyWriteLock)
+     * Sized for the expected season volume, or twice the current history (repeat rides included)
+     * if that is larger.
+     * If a spilled segment cannot be read, the current filter is kept: it already holds every
+     * appended ID, so it can only over-report, never miss a rider. The next attempt then waits
+     * until the distinct ID count doubles, so a failing disk costs one scan per doubling, not one per append
+     */
+    private void rebuildHistoryFilter() {
+        long capacity = Math.max(expectedSeasonVolume, 2L * rideHistory.size());
+        BloomFilter rebuilt = new BloomFilter(capacity, HISTORY_FILTER_TARGET_FPR);
+        try {
+            for (Visitor visitor : rideHistory) {
+                rebuilt.add(visitor.getId());
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("[" + rideName + "] History filter rebuild failed: " + e.getMessage());
+            historyFilterRebuildAt = 2 * Math.max(historyFilterRebuildAt, historyFilter.getDistinctInsertions());
+            return;
         }
+        historyFilter = rebuilt;
+        historyFilterRebuildAt = rebuilt.getCapacity();
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Incrementally maintained ride analytics
+ * Every update is O(1) and every read is lock-free, so statistics can be queried
+ * at any time without a pass over the ride history or blocking boarding
+ */
+public class RideStatistics {
+    // ------------------------------ Configuration ------------------------------
+    public static final int AGE_BUCKET_WIDTH = 10;   // Years per age histogram bucket (0-9, 10-19, ...)
+    public static final int AGE_BUCKETS = 13;        // Covers ages 0-129 (valid ages are 1-120)
+    public static final int LOAD_WINDOW = 10;        // Number of recent cycles in the rolling load factor
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+
+    // ------------------------------ Rider Aggregates ------------------------------
+    private final Map<String, LongAdder> ticketTypeCounts;  // Ticket type -> rider count
+    private final AtomicLongArray ageHistogram;             // Age bucket -> rider count
+    private final LongAdder totalRiders;                    // Riders recorded so far
+
+    // ------------------------------ Membership Check Aggregates ------------------------------
+    private final LongAdder filterNegatives;       // Checks answered "not ridden" by the filter alone
+    private final LongAdder filterFalsePositives;  // Filter said "maybe" but the history scan found nothing
+
+    // ------------------------------ Cycle Aggregates ------------------------------
+    private final int[] recentLoads;        // Riders boarded in each of the last LOAD_WINDOW cycles
+    private final int[] recentCapacities;   // maxRider at the time of each of those cycles
+    private int loadCursor;                 // Next slot to overwrite (guarded by recordCycle)
+    private volatile LoadWindow loadWindow; // Window sums, published together for readers
+    private final AtomicLongArray minuteCycles;  // Cycles started per minute slot (last hour)
+    private final AtomicLongArray minuteStamps;  // Epoch minute each slot currently represents
+
+    /**
+     * Default constructor: Initializes empty aggregates
+     */
+    public RideStatistics() {
+        this.ticketTypeCounts = new ConcurrentHashMap<>();
+        this.ageHistogram = new AtomicLongArray(AGE_BUCKETS);
+        this.totalRiders = new LongAdder();
+        this.filterNegatives = new LongAdder();
+        this.filterFalsePositives = new LongAdder();
+        this.recentLoads = new int[LOAD_WINDOW];
+        this.recentCapacities = new int[LOAD_WINDOW];
+        this.loadWindow = new LoadWindow(0, 0);
+        this.minuteCycles = new AtomicLongArray(MINUTES_PER_HOUR);
+        this.minuteStamps = new AtomicLongArray(MINUTES_PER_HOUR);
+    }
+
+    // ------------------------------ Update Methods (O(1)) ------------------------------
+    /**
+     * Records one rider added to the history (ticket type and age)
+     * @param visitor Visitor who boarded
+     */
+    public void recordRider(Visitor visitor) {
+        if (visitor == null) {
+            return;
+        }
+        String ticketType = visitor.getTicketType() == null ? "Unknown" : visitor.getTicketType();
+        ticketTypeCounts.computeIfAbsent(ticketType, t -> new LongAdder()).increment();
+        ageHistogram.incrementAndGet(ageBucket(visitor.getAge()));
+        totalRiders.increment();
+    }
+
+    /**
+     * Records one completed ride cycle
+     * Serialized among cycle writers only - readers never take this lock
+     * @param ridersBoarded Riders boarded in this cycle
+     * @param maxRider Ride capacity for this cycle
+     */
+    public synchronized void recordCycle(int ridersBoarded, int maxRider) {
+        // Rolling load window: replace the oldest cycle with this one
+        LoadWindow window = loadWindow;
+        long riders = window.riders - recentLoads[loadCursor] + ridersBoarded;
+        long capacity = window.capacity - recentCapacities[loadCursor] + maxRider;
+        recentLoads[loadCursor] = ridersBoarded;
+        recentCapacities[loadCursor] = maxRider;
+        loadCursor = (loadCursor + 1) % LOAD_WINDOW;
+        loadWindow = new LoadWindow(riders, capacity);
+
+        // Per-minute cycle counter: reset the slot if it belongs to an older hour
+        long minute = System.currentTimeMillis() / MILLIS_PER_MINUTE;
+        int slot = (int) (minute % MINUTES_PER_HOUR);
+        if (minuteStamps.get(slot) != minute) {
+            minuteCycles.set(slot, 0);
+            minuteStamps.set(slot, minute);
+        }
+        minuteCycles.incrementAndGet(slot);
+    }
+
+    /**
+     * Records the outcome of one history membership check
+     * @param filterMightContain Whether the membership filter said the visitor may have ridden
+     * @param found Whether the visitor was actually found in the history
+     */
+    public void recordMembershipCheck(boolean filterMightContain, boolean found) {
+        if (!filterMightContain) {
+            filterNegatives.increment();
+        } else if (!found) {
+            filterFalsePositives.increment();
+        }
+    }
+
+    // ------------------------------ Read Methods (lock-free) ------------------------------
+    /**
+     * Returns the number of riders recorded for a ticket type
+     * @param ticketType Ticket type (e.g., "Single Day")
+     * @return Rider count (0 if the ticket type has not been seen)
+     */
+    public long getTicketTypeCount(String ticketType) {
+        LongAdder count = ticketTypeCounts.get(ticketType);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Returns a snapshot of rider counts per ticket type
+     * @return Map of ticket type to rider count (sorted by ticket type)
+     */
+    public Map<String, Long> getTicketTypeCounts() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : ticketTypeCounts.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().sum());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a snapshot of the age histogram
+     * @return Array where index i counts riders aged [i * AGE_BUCKET_WIDTH, (i + 1) * AGE_BUCKET_WIDTH)
+     */
+    public long[] getAgeHistogram() {
+        long[] snapshot = new long[AGE_BUCKETS];
+        for (int i = 0; i < AGE_BUCKETS; i++) {
+            snapshot[i] = ageHistogram.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the total number of riders recorded
+     * @return Rider count
+     */
+    public long getTotalRiders() {
+        return totalRiders.sum();
+    }
+
+    /**
+     * Returns the rolling load factor over the last LOAD_WINDOW cycles
+     * @return Riders boarded divided by capacity offered (0.0 - 1.0), 0.0 if no cycles yet
+     */
+    public double getLoadFactor() {
+        // One volatile read: riders and capacity always come from the same cycle
+        LoadWindow window = loadWindow;
+        return window.capacity == 0 ? 0.0 : (double) window.riders / window.capacity;
+    }
+
+    /**
+     * Returns the number of cycles started in the last 60 minutes
+     * @return Cycles per hour (sliding one-hour window, per-minute resolution)
+     */
+    public long getCyclesPerHour() {
+        long currentMinute = System.currentTimeMillis() / MILLIS_PER_MINUTE;
+        long cycles = 0;
+        for (int slot = 0; slot < MINUTES_PER_HOUR; slot++) {
+            if (currentMinute - minuteStamps.get(slot) < MINUTES_PER_HOUR) {
+                cycles += minuteCycles.get(slot);
+            }
+        }
+        return cycles;
+    }
+
+    /**
+     * Returns the observed false-positive rate of the history membership filter
+     * @return False positives divided by all checks for visitors not in history (0.0 if none yet)
+     */
+    public double getObservedFalsePositiveRate() {
+        long falsePositives = filterFalsePositives.sum();
+        long negatives = filterNegatives.sum() + falsePositives;
+        return negatives == 0 ? 0.0 : (double) falsePositives / negatives;
+    }
+
+    /**
+     * Returns the number of history checks answered by the membership filter without a scan
+     * @return Filter-only negative answers
+     */
+    public long getFilterNegatives() {
+        return filterNegatives.sum();
+    }
+
+    /**
+     * Prints all statistics in a readable format
+     * @param rideName Ride name used as the log prefix
+     */
+    public void printStatistics(String rideName) {
+        System.out.println("\n[" + rideName + "] Ride Statistics:");
+        System.out.println("  Total riders recorded: " + getTotalRiders());
+        System.out.println("  Riders by ticket type:");
+        Map<String, Long> ticketCounts = getTicketTypeCounts();
+        if (ticketCounts.isEmpty()) {
+            System.out.println("    (none)");
+        }
+        for (Map.Entry<String, Long> entry : ticketCounts.entrySet()) {
+            System.out.printf("    %s: %d%n", entry.getKey(), entry.getValue());
+        }
+        System.out.println("  Age distribution:");
+        long[] histogram = getAgeHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                System.out.printf("    %d-%d: %d%n", i * AGE_BUCKET_WIDTH, (i + 1) * AGE_BUCKET_WIDTH - 1, histogram[i]);
+            }
+        }
+        System.out.printf("  Rolling load factor (last %d cycles): %.1f%%%n", LOAD_WINDOW, getLoadFactor() * 100);
+        System.out.println("  Cycles in the last hour: " + getCyclesPerHour());
+        System.out.printf("  History checks skipped by filter: %d | Observed false-positive rate: %.4f%%%n",
+                getFilterNegatives(), getObservedFalsePositiveRate() * 100);
+    }
+
+    // ------------------------------ Helper Methods ------------------------------
+    /**
+     * Maps an age to its histogram bucket (out-of-range ages are clamped)
+     * @param age Visitor age
+     * @return Bucket index
+     */
+    private static int ageBucket(int age) {
+        int bucket = age / AGE_BUCKET_WIDTH;
+        if (bucket < 0) {
+            return 0;
+        }
+        return Math.min(bucket, AGE_BUCKETS - 1);
+    }
+
+    /**
+     * Immutable rolling-window sums, replaced as a whole after each cycle
+     */
+    private static final class LoadWindow {
+        private final long riders;    // Sum of recentLoads
+        private final long capacity;  // Sum of recentCapacities
+
+        private LoadWindow(long riders, long capacity) {
+            this.riders = riders;
+            this.capacity = capacity;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Segmented ride history
+ * Records are appended to an active segment, which is sealed when it reaches the maximum
+ * segment size, or when a visit date outside the dates it already covers arrives once it holds
+ * a minimum share of that size. Chronological boarding therefore gives roughly one segment per
+ * day, while interleaved dates (e.g., re-importing a sorted export) fill segments by size
+ * instead of opening one per record. Sealed segments stay on-heap until the memory
+ * budget is exceeded, after which the oldest ones are spilled to disk. Lookups consult each
+ * segment's Bloom filter first so irrelevant (and spilled) segments are skipped.
+ *
+ * Concurrency: one writer appends while any number of readers query. Records and segments are
+ * published through arrays plus volatile sizes, so readers never block the writer.
+ * sort() and clear() rewrite the structure and must be excluded from readers by the caller.
+ */
+public class SegmentedHistory implements Iterable<Visitor> {
+    public static final int DEFAULT_MAX_SEGMENT_SIZE = 10_000;          // Records per segment
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024; // On-heap bytes (64 MB)
+    private static final long SEGMENT_OVERHEAD_BYTES = 128;             // Segment object, arrays' headers
+    private static final int INITIAL_SEGMENT_SLOTS = 16;                // Initial segment array length
+    private static final int DAY_ROLLOVER_DIVISOR = 16;                 // New day seals at 1/16 of max size
+
+    private volatile HistorySegment[] segments;   // All segments, oldest first (last is active)
+    private volatile int segmentCount;            // Number of published segments
+    private int spillCursor;                      // Segments before this index are spilled (writer only)
+    private int maxSegmentSize;                   // Seal the active segment at this size
+    private long memoryBudget;                    // Maximum estimated on-heap bytes
+    private File spillDirectory;                  // Where sealed segments are spilled
+    private long onHeapBytes;                     // Estimated on-heap bytes (records, filters, overhead)
+    private volatile int size;                    // Total published records across all segments
+
+    /**
+     * Default constructor: default segment size and memory budget, spills to the temp directory
+     */
+    public SegmentedHistory() {
+        this(DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_MEMORY_BUDGET, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Parameterized constructor
+     * @param maxSegmentSize Maximum records per segment (minimum: 1)
+     * @param memoryBudget Maximum estimated on-heap bytes before spilling (minimum: 0)
+     * @param spillDirectory Directory for spilled segment files
+     */
+    public SegmentedHistory(int maxSegmentSize, long memoryBudget, File spillDirectory) {
+        this.segments = new HistorySegment[INITIAL_SEGMENT_SLOTS];
+        this.maxSegmentSize = maxSegmentSize >= 1 ? maxSegmentSize : 1;
+        this.memoryBudget = Math.max(0, memoryBudget);
+        this.spillDirectory = spillDirectory;
+    }
+
+    // ------------------------------ Getter/Setter Methods ------------------------------
+    public int getMaxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    public void setMaxSegmentSize(int maxSegmentSize) {
+        this.maxSegmentSize = maxSegmentSize >= 1 ? maxSegmentSize : 1;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = Math.max(0, memoryBudget);
+        enforceMemoryBudget();
+    }
+
+    public File getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    public long getOnHeapBytes() {
+        return onHeapBytes;
+    }
+
+    /**
+     * Returns the number of segments currently spilled to disk
+     * @return Spilled segment count
+     */
+    public int getSpilledSegmentCount() {
+        int spilled = 0;
+        for (HistorySegment segment : publishedSegments()) {
+            if (segment.isSpilled()) {
+                spilled++;
+            }
+        }
+        return spilled;
+    }
+
+    // ------------------------------ History Operations ------------------------------
+    /**
+     * Appends a visitor record, sealing the active segment when it is full or when a new day
+     * starts after it has reached the minimum day-segment size
+     * @param visitor Visitor record to append
+     */
+    public void add(Visitor visitor) {
+        HistorySegment active = activeSegment();
+        if (active == null || active.size() >= maxSegmentSize
+                || (active.size() >= minDaySegmentSize() && !active.coversDay(visitor.getVisitDate()))) {
+            active = openSegment();
+        }
+        appendTo(active, visitor);
+        enforceMemoryBudget();
+    }
+
+    /**
+     * Checks whether any segment contains the visitor ID
+     * Segments whose Bloom filter rules the ID out are skipped without a scan or disk read
+     * @param id Visitor ID
+     * @return true if the ID exists in the history
+     */
+    public boolean contains(String id) {
+        if (id == null) {
+            return false;
+        }
+        // Newest segments first - recent riders are the most likely matches
+        List<HistorySegment> snapshot = publishedSegments();
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            if (snapshot.get(i).contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns all records as one list (reads spilled segments back from disk)
+     * @return Records in history order
+     */
+    public List<Visitor> toList() {
+        List<Visitor> all = new ArrayList<>(size);
+        for (HistorySegment segment : publishedSegments()) {
+            all.addAll(segment.getRecords());
+        }
+        return all;
+    }
+
+    /**
+     * Sorts the whole history and rebuilds the segments in sorted order
+     * Sorted records no longer group by day, so segments are sealed by size only
+     * @param comparator Visitor comparator
+     */
+    public void sort(Comparator<Visitor> comparator) {
+        List<Visitor> all = toList();
+        all.sort(comparator);
+        clear();
+        for (Visitor visitor : all) {
+            appendBySize(visitor);
+        }
+        enforceMemoryBudget();
+    }
+
+    /**
+     * Removes all records and deletes any spill files
+     */
+    public void clear() {
+        for (HistorySegment segment : publishedSegments()) {
+            segment.discard();
+        }
+        segments = new HistorySegment[INITIAL_SEGMENT_SLOTS];
+        segmentCount = 0;
+        spillCursor = 0;
+        onHeapBytes = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns a read-only view of the segments published so far
+     * Reads the count before the array, so every slot in the view is filled
+     * @return Segments, oldest first
+     */
+    public List<HistorySegment> publishedSegments() {
+        int count = segmentCount;
+        return Collections.unmodifiableList(Arrays.asList(segments).subList(0, count));
+    }
+
+    /**
+     * Iterates over all records in history order, loading spilled segments one at a time
+     */
+    @Override
+    public Iterator<Visitor> iterator() {
+        return new Iterator<Visitor>() {
+            private final Iterator<HistorySegment> segmentIterator = publishedSegments().iterator();
+            private Iterator<Visitor> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && segmentIterator.hasNext()) {
+                    current = segmentIterator.next().getRecords().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Visitor next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    // ------------------------------ Helper Methods ------------------------------
+    /**
+     * Appends a record, sealing the active segment only when it is full
+     */
+    private void appendBySize(Visitor visitor) {
+        HistorySegment active = activeSegment();
+        if (active == null || active.size() >= maxSegmentSize) {
+            active = openSegment();
+        }
+        appendTo(active, visitor);
+    }
+
+    /**
+     * Records a segment must hold before a visit date it does not cover may seal it
+     */
+    private int minDaySegmentSize() {
+        return Math.max(1, maxSegmentSize / DAY_ROLLOVER_DIVISOR);
+    }
+
+    private HistorySegment activeSegment() {
+        int count = segmentCount;
+        return count == 0 ? null : segments[count - 1];
+    }
+
+    /**
+     * Seals the current active segment and publishes a new empty one (O(1) amortized)
+     */
+    private HistorySegment openSegment() {
+        HistorySegment previous = activeSegment();
+        if (previous != null) {
+            previous.seal();
+        }
+        HistorySegment segment = new HistorySegment();
+        HistorySegment[] current = segments;
+        int count = segmentCount;
+        if (count == current.length) {
+            current = Arrays.copyOf(current, count * 2);
+            segments = current;
+        }
+        current[count] = segment;
+        segmentCount = count + 1;
+        onHeapBytes += SEGMENT_OVERHEAD_BYTES + segment.getFilterBytes();
+        return segment;
+    }
+
+    /**
+     * Appends a record to a segment and accounts for its record and filter growth
+     */
+    private void appendTo(HistorySegment segment, Visitor visitor) {
+        long before = segment.getEstimatedBytes() + segment.getFilterBytes();
+        segment.add(visitor);
+        onHeapBytes += segment.getEstimatedBytes() + segment.getFilterBytes() - before;
+        size = size + 1;  // Single writer - publish after the segment has published the record
+    }
+
+    /**
+     * Spills the oldest sealed on-heap segments until the on-heap estimate fits the budget
+     * Only record bytes are released - filters and segment overhead stay on-heap.
+     * The active segment is never spilled; a failed spill leaves the segment on-heap.
+     * The spill cursor skips already-spilled segments, so each segment is visited once.
+     */
+    private void enforceMemoryBudget() {
+        int count = segmentCount;
+        while (onHeapBytes > memoryBudget && spillCursor < count) {
+            HistorySegment segment = segments[spillCursor];
+            if (!segment.isSealed()) {
+                return;
+            }
+            try {
+                segment.spill(spillDirectory);
+                onHeapBytes -= segment.getEstimatedBytes();
+            } catch (IOException e) {
+                System.out.println("Error: Failed to spill history segment to disk: " + e.getMessage());
+                return;
+            }
+            spillCursor++;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Park-wide visitor directory shared by all rides
+ * Keeps one canonical identity (ID, name, age) per visitor and a bitmap of rides ridden per visitor,
+ * so cross-ride queries ("which rides did V001 take?") are lookups instead of history scans.
+ * Ride histories keep their own per-boarding records (visit date, ticket type); only identity is shared.
+ */
+public class VisitorDirectory {
+    // ------------------------------ Directory Attributes ------------------------------
+    private final Map<String, Visitor> visitors;      // Visitor ID -> canonical Visitor object
+    private final Map<String, BitSet> ridesRidden;    // Visitor ID -> bitmap of ride indexes ridden
+    private final Map<String, Integer> rideIndexes;   // Ride ID -> bit position in the bitmaps
+    private final List<Ride> rides;                   // Bit position -> registered ride
+
+    /**
+     * Default constructor: Initializes empty concurrent collections
+     */
+    public VisitorDirectory() {
+        this.visitors = new ConcurrentHashMap<>();
+        this.ridesRidden = new ConcurrentHashMap<>();
+        this.rideIndexes = new ConcurrentHashMap<>();
+        this.rides = new ArrayList<>();
+    }
+
+    // ------------------------------ Ride Registration ------------------------------
+    /**
+     * Registers a ride with the directory and assigns it a bit position
+     * Registering the same ride ID twice returns the existing position
+     * @param ride Ride to register
+     * @return Bit position of the ride, or -1 if the ride is invalid
+     */
+    public synchronized int registerRide(Ride ride) {
+        if (ride == null || ride.getRideId() == null) {
+            System.out.println("Error: Cannot register a ride without an ID in the visitor directory!");
+            return -1;
+        }
+        Integer existing = rideIndexes.get(ride.getRideId());
+        if (existing != null) {
+            return existing;
+        }
+        int index = rides.size();
+        rides.add(ride);
+        rideIndexes.put(ride.getRideId(), index);
+        return index;
+    }
+
+    // ------------------------------ Visitor Identity ------------------------------
+    /**
+     * Returns the canonical identity for the given visitor's ID
+     * The first Visitor seen for an ID becomes the canonical object; only its ID, name and age
+     * describe the visitor - its visit date and ticket type belong to that first boarding
+     * @param visitor Visitor to look up (only the ID is used once canonical exists)
+     * @return Canonical Visitor object, or null if visitor/ID is null
+     */
+    public Visitor canonicalize(Visitor visitor) {
+        if (visitor == null || visitor.getId() == null) {
+            return null;
+        }
+        Visitor existing = visitors.putIfAbsent(visitor.getId(), visitor);
+        return existing != null ? existing : visitor;
+    }
+
+    /**
+     * Looks up the canonical Visitor by ID
+     * @param visitorId Visitor ID (e.g., "V001")
+     * @return Canonical Visitor, or null if the ID is unknown
+     */
+    public Visitor getVisitor(String visitorId) {
+        return visitorId == null ? null : visitors.get(visitorId);
+    }
+
+    /**
+     * Returns the number of distinct visitors known to the park
+     * @return Count of canonical visitors
+     */
+    public int size() {
+        return visitors.size();
+    }
+
+    // ------------------------------ Ride Tracking ------------------------------
+    /**
+     * Records that a visitor boarded the given ride (called on boarding)
+     * @param visitor Visitor who boarded
+     * @param ride Ride boarded (registered automatically if needed)
+     * @return true if the boarding was recorded, false if the visitor or ride has no ID
+     */
+    public boolean recordRide(Visitor visitor, Ride ride) {
+        // Concurrent maps reject null keys - rides without an ID cannot be tracked
+        String rideId = ride == null ? null : ride.getRideId();
+        if (rideId == null) {
+            return false;
+        }
+        Visitor canonical = canonicalize(visitor);
+        if (canonical == null) {
+            return false;
+        }
+        Integer index = rideIndexes.get(rideId);
+        if (index == null) {
+            index = registerRide(ride);
+            if (index < 0) {
+                return false;
+            }
+        }
+        BitSet bitmap = ridesRidden.computeIfAbsent(canonical.getId(), id -> new BitSet());
+        // BitSet is not thread-safe - guard each bitmap individually
+        synchronized (bitmap) {
+            bitmap.set(index);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a visitor has ridden the given ride
+     * @param visitorId Visitor ID
+     * @param ride Ride to check
+     * @return true if the visitor has boarded the ride, false otherwise
+     */
+    public boolean hasRidden(String visitorId, Ride ride) {
+        String rideId = ride == null ? null : ride.getRideId();
+        if (visitorId == null || rideId == null) {
+            return false;
+        }
+        Integer index = rideIndexes.get(rideId);
+        BitSet bitmap = ridesRidden.get(visitorId);
+        if (index == null || bitmap == null) {
+            return false;
+        }
+        synchronized (bitmap) {
+            return bitmap.get(index);
+        }
+    }
+
+    /**
+     * Returns all rides the visitor has boarded, in registration order
+     * @param visitorId Visitor ID (e.g., "V001")
+     * @return List of rides ridden (empty if none)
+     */
+    public List<Ride> getRidesTaken(String visitorId) {
+        List<Ride> result = new ArrayList<>();
+        BitSet bitmap = visitorId == null ? null : ridesRidden.get(visitorId);
+        if (bitmap == null) {
+            return result;
+        }
+        BitSet snapshot;
+        synchronized (bitmap) {
+            snapshot = (BitSet) bitmap.clone();
+        }
+        synchronized (this) {
+            for (int i = snapshot.nextSetBit(0); i >= 0; i = snapshot.nextSetBit(i + 1)) {
+                result.add(rides.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prints all rides the visitor has boarded
+     * @param visitorId Visitor ID to report on
+     */
+    public void printRidesTaken(String visitorId) {
+        Visitor visitor = getVisitor(visitorId);
+        if (visitor == null) {
+            System.out.println("Visitor directory: No visitor found with ID: " + visitorId);
+            return;
+        }
+        List<Ride> taken = getRidesTaken(visitorId);
+        System.out.println("\nRides taken by " + visitor.getName() + " (" + visitorId + "): " + taken.size());
+        int index = 1;
+        for (Ride ride : taken) {
+            System.out.printf("    %d. Ride ID: %s | Name: %s%n", index++, ride.getRideId(), ride.getRideName());
+        }
+    }
+}